@@ -0,0 +1,38 @@
+//
+// Frame.java
+// Go-Back-N ARQ Protocol Simulation
+//
+// Descrip: A single frame sent through the sliding window.
+//
+
+package main;
+
+//simple Frame class to specify Frame entity
+class Frame {
+    boolean isMoving;
+    boolean reachedDest;
+    boolean acknowledged;
+    boolean needsAck;
+    boolean isSelected;
+    int vPos;
+    
+    //@descrip: default constructors to initialize members
+    Frame() {
+        isMoving = false;
+        isSelected = false;
+        reachedDest = false;
+        acknowledged = false;
+        needsAck = true;
+        vPos = 0;
+    }
+    
+    //@normal constructor to initialize members
+    Frame(boolean _isMoving, int _vPos) {
+        isMoving = _isMoving;
+        isSelected = false;
+        reachedDest = false;
+        acknowledged = false;
+        needsAck = true;
+        vPos = _vPos;
+    }
+}
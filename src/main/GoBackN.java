@@ -0,0 +1,252 @@
+//
+// GoBackN.java
+// Go-Back-N ARQ Protocol Simulation
+//
+// Descrip: Protocol state of the simulation, kept free of AWT so the same
+//          logic drives both the applet and the headless replay harness.
+//
+
+package main;
+
+class GoBackN {
+
+    //@descrip: notifications the protocol sends back to whoever is driving it
+    interface Listener {
+        //timeout timer should (re)start counting from now
+        void timerStarted();
+        //timeout timer should stop
+        void timerStopped();
+        //sender window has room again after an acknowledgement
+        void windowOpened();
+        //selected frame stopped moving and is no longer selectable
+        void frameUnselected();
+    }
+
+    //protocol parameters
+    final int winLen;
+    final int totalFrames;
+    final int frameHeight;
+    final int vPadding;
+
+    //important variables that control the protocol
+    int winBase;
+    int nextFrame;
+    int selFrame = -1;
+
+    //status message of the last action
+    String eventMsg;
+
+    //array of packets avaiable to be sent
+    Frame frames[];
+
+    Listener listener;
+
+    //@descrip: normal constructor to initialize members
+    GoBackN(int _winLen, int _totalFrames, int _frameHeight, int _vPadding, Listener _listener) {
+        winLen = _winLen;
+        totalFrames = _totalFrames;
+        frameHeight = _frameHeight;
+        vPadding = _vPadding;
+        listener = _listener;
+        frames = new Frame[totalFrames];
+        winBase = 0;
+        nextFrame = 0;
+        eventMsg = "Click 'Send Frame' button to start.";
+    }
+
+    //@param: none
+    //@ret: boolean(indicating if any Frame moving in the array of packets)
+    //@descrip: Checks the array of packets to see if any Frame is moving.
+    //			if moving returns true, else returns false
+    public boolean areFramesMoving() {
+        for (int i = 0; i < frames.length; i++) {
+            if (frames[i] == null) {
+                return false;
+            } else if (frames[i].isMoving) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //@param: int(indicating Frame index)
+    //@ret: boolean (if packets reached receiver)
+    //@descrip: checks all packets before @param Frame index to see if those packets
+    //			have reached their destination
+    public boolean checkRecFrames(int fIndex) {
+        for (int i = 0; i < fIndex; i++) {
+            if (!frames[i].reachedDest) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //@param: none
+    //@ret: boolean(true if all packets in the window have been sent)
+    public boolean isWindowFull() {
+        return nextFrame == winBase + winLen;
+    }
+
+    //@param: none
+    //@ret: none
+    //@descrip: advances every moving Frame by one animation step
+    public void tick() {
+        for (int i = 0; i < totalFrames; i++) {
+            //if Frame exists AND is moving
+            if (frames[i] != null && frames[i].isMoving) {
+                //if a Frame hasn't reached it destination
+                //move Frame downwards(toward receiver)
+                if (frames[i].vPos < (vPadding - frameHeight)) {
+                    //move Frame 5 pixels down
+                    frames[i].vPos += 5;
+                }
+                //Frame is moving towards the receiver(downwards)
+                //and is within one frame height of being on top of destination
+                else if (frames[i].needsAck) {
+                    //mark Frame as having reached its destination
+                    frames[i].reachedDest = true;
+                    //check if all preceeding frames have been received (0..i-1)
+                    //if they have, then send acknowledgement for receiving current frame
+                    if (checkRecFrames(i)) {
+                        frames[i].vPos = frameHeight + 5;
+                        frames[i].needsAck = false;
+                        eventMsg = "Frame #" + i + " has been received. Acknowledgement sent.";
+                    }
+                    //one or more previous packets are missing
+                    //current Frame will we received, but no acknowledgement will be sent
+                    else {
+                        frames[i].isMoving = false;
+                        eventMsg = "Frame #" + i + " has been received. No acknowledge sent.";
+                        //if the current Frame was selFrame; unselect it in this case
+                        //since there is no acknowledgement being sent which can be selFrame
+                        if (i == selFrame) {
+                            selFrame = -1;
+                            listener.frameUnselected();
+                        }
+                    }
+                }
+                //Frame is not moving AND has reached the destination(sender)
+                //if this current Frame is an acknowledgement(needsAck indicates wheather ack is needed)
+                else if (!frames[i].needsAck) {
+                    eventMsg = "Frame #" + i + " acknowledgement has been received.";
+                    frames[i].isMoving = false;
+                    //iterate through previous packets and label their acknowledgements received
+                    for (int n = 0; n <= i; n++) {
+                        frames[n].acknowledged = true;
+                    }
+                    //if the Frame was selected upon reaching the destination, then unselect it
+                    if (i == selFrame) {
+                        selFrame = -1;
+                        listener.frameUnselected();
+                    }
+                    //reset timeout timer when an acknowledgement is received
+                    listener.timerStopped();
+                    //move window base toward right
+                    if (i + winLen < totalFrames) {
+                        winBase = i + 1;
+                    }
+                    //increment nextFrame count upon received acknowledgement AND enable send button
+                    if (nextFrame < winBase + winLen) {
+                        listener.windowOpened();
+                    }
+                    //when window base != nextFrame it means there is a succeeding
+                    //Frame in the window that was sent, but whose acknowledgement
+                    //has not yet been received. Thus, timeout timer needs to be reset
+                    //for the succeding Frame's acknowledgement to be received within that
+                    //time, else that Frame will need to be resent. Timer is reset when the
+                    //current packets acknowledgement is received, the succeeding Frame is given extra time.
+                    if (winBase != nextFrame) {
+                        eventMsg += " Timeout timer has restarted.";
+                        listener.timerStarted();
+                    }
+                    //No other frames are moving
+                    else {
+                        eventMsg += " Timeout timer stopped.";
+                    }
+                }
+            }
+        }
+    }
+
+    //@param: none
+    //@ret: boolean(true if a Frame was sent)
+    //@descrip: sends the next Frame if it is within the window
+    public boolean sendFrame() {
+        if (nextFrame >= winBase + winLen) {
+            return false;
+        }
+        //label the Frame as 'moving' and change its position down by 5 pixels
+        frames[nextFrame] = new Frame(true, frameHeight + 5);
+        //generate sring indicating the action performed
+        eventMsg = "Frame #" + nextFrame + " has been sent.";
+        //start timeout timer for that Frame if it's the first Frame in
+        //the window being sent
+        if (winBase == nextFrame) {
+            eventMsg += " Timer set for Frame #" + winBase + ".";
+            listener.timerStarted();
+        }
+        //update next sequence to be sent
+        nextFrame++;
+        return true;
+    }
+
+    //@param: none
+    //@ret: none
+    //@descrip: flag frames in the window to be resent if their acknowledgements have not been received
+    public void timeout() {
+        for (int n = winBase; n < winBase + winLen; n++) {
+            if (frames[n] != null) {
+                if (!frames[n].acknowledged) {
+                    frames[n].isMoving = true;
+                    frames[n].needsAck = true;
+                    frames[n].vPos = frameHeight + 5;
+                }
+            }
+        }
+        eventMsg = "Frames resent due to frame exceeding timeout timer.";
+        eventMsg += " Timer has restarted.";
+    }
+
+    //@param: int(indicating Frame index)
+    //@ret: none
+    //@descrip: marks a moving Frame as selected so it can be killed
+    public void selectFrame(int i) {
+        eventMsg = "Frame #" + i + " has been selected.";
+        frames[i].isSelected = true;
+        selFrame = i;
+    }
+
+    //@param: none
+    //@ret: none
+    //@descrip: destroys the selected Frame (or its acknowledgement) in transit
+    public void killFrame() {
+        //check if the selFrame Frame needed acknowledgement
+        if (frames[selFrame].needsAck) {
+            eventMsg = "Frame #" + selFrame + " has been destroyed.";
+            eventMsg += " Timeout timer still running for Frame #" + selFrame + ".";
+        }
+        //if no acknowledgement was needed then its a acknowledgement Frame
+        else {
+            eventMsg = "Acknowledgement of Frame #" + selFrame + " has been destroyed.";
+            eventMsg += "Timeout timer still running for Frame " + selFrame + ".";
+        }
+        //mark the destroyed Frame as immobile
+        frames[selFrame].isMoving = false;
+        selFrame = -1;
+    }
+
+    //@param: none
+    //@ret: none
+    //@descrip: empties the frames array and moves the window back to the start
+    public void reset() {
+        for (int i = 0; i < totalFrames; i++) {
+            if (frames[i] != null) {
+                frames[i] = null;
+            }
+        }
+        winBase = 0;
+        nextFrame = 0;
+        selFrame = -1;
+    }
+}
@@ -0,0 +1,488 @@
+//
+// ReplayHarness.java
+// Go-Back-N ARQ Protocol Simulation
+//
+// Descrip: Replays seeded send/kill scenarios against GoBackN without any GUI
+//          or threads, checks protocol invariants after every event, compares
+//          the event traces with a recorded baseline and gates on throughput.
+//
+// Usage: java main.ReplayHarness [--record | --record-throughput] [--baseline file]
+//                                [--seeds n] [--trace-dir dir] [--tolerance fraction]
+//
+
+package main;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class ReplayHarness implements GoBackN.Listener {
+
+    //protocol parameters, same as the defaults in WindowingSim
+    static final int WIN_LEN = 5;
+    static final int TOTAL_FRAMES = 20;
+    static final int FRAME_HEIGHT = 30;
+    static final int V_PADDING = 300;
+    //timeOutSec * frameRate: the timer thread sleeps this many animation steps
+    static final int TIMEOUT_TICKS = 20 * 5;
+    //give up on a scenario that has not delivered every frame by then
+    static final int MAX_TICKS = 20000;
+
+    //throughput is measured by time, not by rounds, so the JIT has finished
+    //compiling the engine before any window is counted
+    static final long WARMUP_NANOS = 2000000000L;
+    static final long WINDOW_NANOS = 500000000L;
+    static final int MEASURE_WINDOWS = 7;
+
+    final long seed;
+    final boolean checked;
+    final List<String> trace;
+
+    GoBackN sim;
+    int tick;
+    //logical timeout timer; -1 when stopped
+    int timerDeadline = -1;
+
+    //what the harness itself has observed, independent of the engine
+    int recvTick[];
+    boolean prevNeedsAck[];
+    int delivered;
+
+    String lastSig;
+    String lastMsg;
+
+    //@param: seed, whether to check invariants and record the trace
+    ReplayHarness(long _seed, boolean _checked) {
+        seed = _seed;
+        checked = _checked;
+        trace = _checked ? new ArrayList<String>() : null;
+    }
+
+    //@param: none
+    //@ret: none
+    //@descrip: timer restarts count from the current animation step
+    //NOTE: implements GoBackN.Listener
+    @Override
+    public void timerStarted() {
+        timerDeadline = tick + TIMEOUT_TICKS;
+    }
+
+    //NOTE: implements GoBackN.Listener
+    @Override
+    public void timerStopped() {
+        timerDeadline = -1;
+    }
+
+    //NOTE: implements GoBackN.Listener; button state is not simulated
+    @Override
+    public void windowOpened() {
+    }
+
+    //NOTE: implements GoBackN.Listener; button state is not simulated
+    @Override
+    public void frameUnselected() {
+    }
+
+    //@param: none
+    //@ret: int(number of frames acknowledged at the sender)
+    //@descrip: plays the scenario for this seed until every frame is acknowledged
+    int run() {
+        Random rnd = new Random(seed);
+        //each seed gets its own mix of sending and killing
+        double sendRate = 0.02 + 0.2 * rnd.nextDouble();
+        double killRate = 0.02 * rnd.nextDouble();
+
+        sim = new GoBackN(WIN_LEN, TOTAL_FRAMES, FRAME_HEIGHT, V_PADDING, this);
+        recvTick = new int[TOTAL_FRAMES];
+        prevNeedsAck = new boolean[TOTAL_FRAMES];
+        for (int i = 0; i < TOTAL_FRAMES; i++) {
+            recvTick[i] = -1;
+        }
+        delivered = 0;
+
+        for (tick = 0; tick < MAX_TICKS && !allAcknowledged() && !stalled(); tick++) {
+            if (rnd.nextDouble() < sendRate && sim.sendFrame()) {
+                step("send");
+            }
+            if (rnd.nextDouble() < killRate) {
+                int moving = 0;
+                for (int i = 0; i < sim.nextFrame; i++) {
+                    if (sim.frames[i].isMoving) {
+                        moving++;
+                    }
+                }
+                if (moving > 0) {
+                    int pick = rnd.nextInt(moving);
+                    for (int i = 0; i < sim.nextFrame; i++) {
+                        if (sim.frames[i].isMoving && pick-- == 0) {
+                            sim.selectFrame(i);
+                            step("select");
+                            sim.killFrame();
+                            step("kill");
+                            break;
+                        }
+                    }
+                }
+            }
+            if (sim.areFramesMoving()) {
+                sim.tick();
+                step("tick");
+            }
+            if (timerDeadline != -1 && tick >= timerDeadline) {
+                sim.timeout();
+                timerDeadline = tick + TIMEOUT_TICKS;
+                step("timeout");
+            }
+        }
+        if (checked) {
+            trace.add(tick + " end " + (allAcknowledged() ? "complete" : "incomplete"));
+        }
+
+        int acked = 0;
+        for (int i = 0; i < TOTAL_FRAMES; i++) {
+            if (sim.frames[i] != null && sim.frames[i].acknowledged) {
+                acked++;
+            }
+        }
+        return acked;
+    }
+
+    //@param: none
+    //@ret: boolean(true once the sender holds an acknowledgement for every frame)
+    boolean allAcknowledged() {
+        Frame last = sim.frames[TOTAL_FRAMES - 1];
+        return last != null && last.acknowledged;
+    }
+
+    //@param: none
+    //@ret: boolean(true once no event can ever change the protocol state again)
+    //@descrip: with a full window nothing can be sent, and timeouts only resend
+    //			unacknowledged frames of the window, so nothing will move again
+    boolean stalled() {
+        if (!sim.isWindowFull() || sim.areFramesMoving()) {
+            return false;
+        }
+        for (int n = sim.winBase; n < sim.winBase + sim.winLen; n++) {
+            if (!sim.frames[n].acknowledged) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //@param: String(kind of event that just happened)
+    //@ret: none
+    //@descrip: checks the invariants and appends to the trace if anything changed
+    void step(String kind) {
+        if (!checked) {
+            return;
+        }
+        //the window never runs ahead of or behind the next sequence number
+        if (sim.winBase > sim.nextFrame || sim.nextFrame > sim.winBase + sim.winLen) {
+            fail(kind, "window out of range: base=" + sim.winBase + " next=" + sim.nextFrame);
+        }
+        for (int i = 0; i < TOTAL_FRAMES; i++) {
+            Frame f = sim.frames[i];
+            if (f == null) {
+                continue;
+            }
+            if (f.reachedDest && recvTick[i] == -1) {
+                recvTick[i] = tick;
+            }
+            //an acknowledgement being sent means the receiver delivered every
+            //frame up to this one, so all of them must have arrived already
+            if (prevNeedsAck[i] && !f.needsAck) {
+                for (int n = 0; n < i; n++) {
+                    if (recvTick[n] == -1) {
+                        fail(kind, "frame #" + i + " delivered before frame #" + n);
+                    }
+                }
+                delivered = Math.max(delivered, i + 1);
+            }
+            prevNeedsAck[i] = f.needsAck;
+            //no frame is acknowledged before the receiver got it
+            if (f.acknowledged && (recvTick[i] == -1 || recvTick[i] >= tick || i >= delivered)) {
+                fail(kind, "frame #" + i + " acknowledged before it was received");
+            }
+        }
+
+        StringBuilder sig = new StringBuilder();
+        sig.append(sim.winBase).append(' ').append(sim.nextFrame).append(' ').append(sim.selFrame).append(' ');
+        for (int i = 0; i < TOTAL_FRAMES; i++) {
+            Frame f = sim.frames[i];
+            if (f == null) {
+                sig.append('.');
+            } else {
+                int bits = (f.isMoving ? 1 : 0) | (f.reachedDest ? 2 : 0) | (f.acknowledged ? 4 : 0) | (f.needsAck ? 8 : 0);
+                sig.append(Character.forDigit(bits, 16));
+            }
+        }
+        //plain animation steps are only recorded when they change something
+        String s = sig.toString();
+        if (!kind.equals("tick") || !s.equals(lastSig) || !sim.eventMsg.equals(lastMsg)) {
+            trace.add(tick + " " + kind + " " + s + " " + sim.eventMsg);
+        }
+        lastSig = s;
+        lastMsg = sim.eventMsg;
+    }
+
+    //@param: String(kind of event), String(what went wrong)
+    //@ret: none
+    //@descrip: aborts the scenario with the seed and step for replaying it
+    void fail(String kind, String what) {
+        throw new IllegalStateException("seed " + seed + ", tick " + tick + " (" + kind + "): " + what);
+    }
+
+    //@param: list of trace lines
+    //@ret: String(short hex digest of the trace)
+    static String digest(List<String> lines) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (String line : lines) {
+            md.update(line.getBytes());
+            md.update((byte) '\n');
+        }
+        StringBuilder hex = new StringBuilder();
+        byte hash[] = md.digest();
+        for (int i = 0; i < 8; i++) {
+            hex.append(String.format("%02x", hash[i]));
+        }
+        return hex.toString();
+    }
+
+    //@param: int(number of seeds), long(minimum time to keep replaying)
+    //@ret: long(frames acknowledged per second during that time)
+    //@descrip: replays the whole seed set unchecked until the budget is used up
+    static long replayFor(int seeds, long nanos) {
+        long start = System.nanoTime();
+        long elapsed;
+        long frames = 0;
+        do {
+            for (int s = 1; s <= seeds; s++) {
+                frames += new ReplayHarness(s, false).run();
+            }
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < nanos);
+        return frames * 1000000000L / elapsed;
+    }
+
+    //@param: int(number of seeds)
+    //@ret: long(median frames acknowledged per second over the measured windows)
+    //@descrip: measures the engine alone after a timed warmup
+    static long measureThroughput(int seeds) {
+        replayFor(seeds, WARMUP_NANOS);
+        long rates[] = new long[MEASURE_WINDOWS];
+        for (int w = 0; w < MEASURE_WINDOWS; w++) {
+            rates[w] = replayFor(seeds, WINDOW_NANOS);
+        }
+        Arrays.sort(rates);
+        return rates[MEASURE_WINDOWS / 2];
+    }
+
+    //@param: String(what is wrong with the command line)
+    //@ret: none
+    //@descrip: reports a bad command line and exits with status 2
+    static void usageError(String msg) {
+        System.out.println("ERROR: " + msg);
+        System.exit(2);
+    }
+
+    //@param: command line, int(index of the option)
+    //@ret: String(the value following the option)
+    static String optionValue(String args[], int i) {
+        if (i + 1 >= args.length) {
+            usageError("Missing value for " + args[i]);
+        }
+        return args[i + 1];
+    }
+
+    //@param: File(baseline), throughput, trace digest per seed
+    //@ret: none
+    static void writeBaseline(File baselineFile, long throughput, TreeMap<Long, String> digests) throws IOException {
+        baselineFile.getAbsoluteFile().getParentFile().mkdirs();
+        PrintWriter out = new PrintWriter(new FileWriter(baselineFile));
+        out.println("# Go-Back-N replay baseline: simulated throughput and per-seed trace digests");
+        out.println("throughput " + throughput);
+        for (Long s : digests.keySet()) {
+            out.println("seed " + s + " " + digests.get(s));
+        }
+        out.close();
+    }
+
+    //@param: File(baseline), String(what is wrong with it)
+    //@ret: none
+    //@descrip: an unusable baseline fails the check instead of passing it
+    static void baselineError(File baselineFile, String msg) {
+        System.out.println("FAIL: baseline " + baselineFile + ": " + msg);
+        System.exit(1);
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean record = false;
+        boolean recordThroughput = false;
+        File baselineFile = new File("replay/baseline.txt");
+        File traceDir = null;
+        int seeds = 32;
+        double tolerance = 0.25;
+        for (int i = 0; i < args.length; i++) {
+            if ("--record".equals(args[i])) {
+                record = true;
+            } else if ("--record-throughput".equals(args[i])) {
+                recordThroughput = true;
+            } else if ("--baseline".equals(args[i])) {
+                baselineFile = new File(optionValue(args, i++));
+            } else if ("--trace-dir".equals(args[i])) {
+                traceDir = new File(optionValue(args, i++));
+            } else if ("--seeds".equals(args[i])) {
+                try {
+                    seeds = Integer.parseInt(optionValue(args, i++));
+                } catch (NumberFormatException e) {
+                    usageError("--seeds needs a whole number");
+                }
+                if (seeds < 1) {
+                    usageError("--seeds must be at least 1");
+                }
+            } else if ("--tolerance".equals(args[i])) {
+                try {
+                    tolerance = Double.parseDouble(optionValue(args, i++));
+                } catch (NumberFormatException e) {
+                    usageError("--tolerance needs a number");
+                }
+                //NaN fails both comparisons, so test for the valid range
+                if (!(tolerance >= 0 && tolerance < 1)) {
+                    usageError("--tolerance must be at least 0 and below 1");
+                }
+            } else {
+                usageError("Unknown option " + args[i]);
+            }
+        }
+        if (record && recordThroughput) {
+            usageError("--record and --record-throughput can't be combined");
+        }
+        if (traceDir != null) {
+            traceDir.mkdirs();
+        }
+
+        //replay every seed with invariant checks and collect the trace digests
+        TreeMap<Long, String> digests = new TreeMap<Long, String>();
+        int stalled = 0;
+        for (long s = 1; s <= seeds; s++) {
+            ReplayHarness h = new ReplayHarness(s, true);
+            try {
+                if (h.run() < TOTAL_FRAMES) {
+                    stalled++;
+                }
+            } catch (IllegalStateException e) {
+                System.out.println("FAIL: invariant violated at " + e.getMessage());
+                System.exit(1);
+            }
+            digests.put(s, digest(h.trace));
+            if (traceDir != null) {
+                PrintWriter out = new PrintWriter(new FileWriter(new File(traceDir, "seed-" + s + ".txt")));
+                for (String line : h.trace) {
+                    out.println(line);
+                }
+                out.close();
+            }
+        }
+        long throughput = measureThroughput(seeds);
+        System.out.println("Replayed " + seeds + " seeds, invariants held. Throughput = " + throughput + " frames/sec");
+        //stalls are part of the recorded behavior, so they only get reported
+        if (stalled > 0) {
+            System.out.println("NOTE: " + stalled + " seeds stalled before every frame was acknowledged.");
+        }
+
+        if (record) {
+            writeBaseline(baselineFile, throughput, digests);
+            System.out.println("Recorded baseline to " + baselineFile);
+            return;
+        }
+
+        //compare with the recorded baseline
+        if (!baselineFile.exists()) {
+            System.out.println("ERROR: No baseline at " + baselineFile + "; run with --record first.");
+            System.exit(2);
+        }
+        long baseThroughput = -1;
+        TreeMap<Long, String> baseDigests = new TreeMap<Long, String>();
+        BufferedReader in = new BufferedReader(new FileReader(baselineFile));
+        for (String line = in.readLine(); line != null; line = in.readLine()) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String parts[] = line.split(" +");
+            try {
+                if ("throughput".equals(parts[0]) && parts.length == 2) {
+                    baseThroughput = Long.parseLong(parts[1]);
+                } else if ("seed".equals(parts[0]) && parts.length == 3) {
+                    baseDigests.put(Long.parseLong(parts[1]), parts[2]);
+                } else {
+                    baselineError(baselineFile, "malformed line '" + line + "'");
+                }
+            } catch (NumberFormatException e) {
+                baselineError(baselineFile, "bad number in line '" + line + "'");
+            }
+        }
+        in.close();
+        if (baseThroughput < 0) {
+            baselineError(baselineFile, "no throughput line");
+        }
+
+        //every replayed seed must have a digest and every recorded seed must be replayed
+        boolean ok = true;
+        boolean differs = false;
+        for (Long s : digests.keySet()) {
+            String expected = baseDigests.get(s);
+            if (expected == null) {
+                System.out.println("FAIL: seed " + s + " has no digest in the baseline");
+                ok = false;
+            } else if (!expected.equals(digests.get(s))) {
+                System.out.println("FAIL: trace of seed " + s + " differs from baseline (" + digests.get(s) + " != " + expected + ")");
+                differs = true;
+                ok = false;
+            }
+        }
+        for (Long s : baseDigests.keySet()) {
+            if (!digests.containsKey(s)) {
+                System.out.println("FAIL: baseline seed " + s + " was not replayed; run with --seeds " + baseDigests.lastKey());
+                ok = false;
+            }
+        }
+        if (differs) {
+            System.out.println("Dump traces of both builds with --trace-dir and diff them to see the change.");
+        }
+        //a new throughput is only recorded for the exact behavior already in the baseline
+        if (recordThroughput) {
+            if (!ok) {
+                System.out.println("FAIL: traces do not match the baseline; throughput not recorded.");
+                System.exit(1);
+            }
+            writeBaseline(baselineFile, throughput, baseDigests);
+            System.out.println("Recorded throughput " + throughput + " frames/sec to " + baselineFile);
+            return;
+        }
+        if (throughput < baseThroughput * (1 - tolerance)) {
+            System.out.println("FAIL: throughput " + throughput + " frames/sec is below baseline " + baseThroughput);
+            ok = false;
+        }
+        if (!ok) {
+            System.exit(1);
+        }
+        System.out.println("Traces match baseline; throughput baseline = " + baseThroughput + " frames/sec");
+    }
+}
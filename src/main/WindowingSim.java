@@ -13,37 +13,7 @@ import java.awt.*;
 import java.awt.event.ActionListener;
 import java.awt.event.ActionEvent;
 
-//simple Frame class to specify Frame entity
-class Frame {
-    boolean isMoving;
-    boolean reachedDest;
-    boolean acknowledged;
-    boolean needsAck;
-    boolean isSelected;
-    int vPos;
-    
-    //@descrip: default constructors to initialize members
-    Frame() {
-        isMoving = false;
-        isSelected = false;
-        reachedDest = false;
-        acknowledged = false;
-        needsAck = true;
-        vPos = 0;
-    }
-    
-    //@normal constructor to initialize members
-    Frame(boolean _isMoving, int _vPos) {
-        isMoving = _isMoving;
-        isSelected = false;
-        reachedDest = false;
-        acknowledged = false;
-        needsAck = true;
-        vPos = _vPos;
-    }
-}
-
-public class WindowingSim extends Applet implements ActionListener, Runnable {
+public class WindowingSim extends Applet implements ActionListener, Runnable, GoBackN.Listener {
     
     //clickable buttoms for the GUI
     Button send;
@@ -71,8 +41,7 @@ public class WindowingSim extends Applet implements ActionListener, Runnable {
     final Color color_recFrame = Color.yellow;
     final Color color_selFrame = Color.red;
     
-    //displays status message at end of each action
-    String eventMsg;
+    //holds on to the most recent status messages
     String eventLog[];
     
     //GUI properties regarding different elements
@@ -87,13 +56,10 @@ public class WindowingSim extends Applet implements ActionListener, Runnable {
     int eventLogSize = 5;
     
     //important variables that control GUI parameters
-    int winBase;
-    int nextFrame;
     int frameRate;
-    int selFrame = -1;
     
-    //array of packets avaiable to be sent
-    Frame frames[];
+    //protocol state: window, frames and status message
+    GoBackN sim;
     
     
     //@param: none
@@ -114,14 +80,10 @@ public class WindowingSim extends Applet implements ActionListener, Runnable {
     @Override
     public void init() {
         
-        winBase = 0; //initialize winBase
-        nextFrame = 0; //initialize next seq. number of Frame to be sent
         frameRate = 5; //default value for frameRate
         
-        //initialize the transmittable Frame array to set of all packets(total packets)
-        frames = new Frame[totalFrames];
-        //initialize the message indicating simulation is ready to be run
-        eventMsg = "Click 'Send Frame' button to start.";
+        //initialize the window, the transmittable Frame array and the start message
+        sim = new GoBackN(winLen, totalFrames, frameHeight, vPadding, this);
         //will hold on to multiple messages
         eventLog = new String[eventLogSize];
         
@@ -150,32 +112,44 @@ public class WindowingSim extends Applet implements ActionListener, Runnable {
         add(reset);
     }
     
-    //@param: array of packets
-    //@ret: boolean(indicating if any Frame moving in the array of packets)
-    //@descrip: Checks the array of packets to see if any Frame is moving.
-    //			if moving returns true, else returns false
-    public boolean areFramesMoving(Frame packets[]) {
-        for (int i = 0; i < packets.length; i++) {
-            if (packets[i] == null) {
-                return false;
-            } else if (packets[i].isMoving) {
-                return true;
-            }
+    //@param: none
+    //@ret: none
+    //@descrip: (re)starts the timeout timer thread
+    //NOTE: implements GoBackN.Listener
+    @Override
+    public void timerStarted() {
+        if (timerThread == null) {
+            timerThread = new Thread(this);
         }
-        return false;
+        timerSleep = true;
+        timerThread.start();
     }
     
-    //@param: int(indicating Frame index)
-    //@ret: boolean (if packets reached receiver)
-    //@descrip: checks all packets before @param Frame index to see if those packets
-    //			have reached their destination
-    public boolean checkRecFrames(int fIndex) {
-        for (int i = 0; i < fIndex; i++) {
-            if (!frames[i].reachedDest) {
-                return false;
-            }
-        }
-        return true;
+    //@param: none
+    //@ret: none
+    //@descrip: orphans the running timer thread so it exits when it wakes up
+    //NOTE: implements GoBackN.Listener
+    @Override
+    public void timerStopped() {
+        timerThread = null;
+    }
+    
+    //@param: none
+    //@ret: none
+    //@descrip: enables the send button once the window has room again
+    //NOTE: implements GoBackN.Listener
+    @Override
+    public void windowOpened() {
+        send.setEnabled(true);
+    }
+    
+    //@param: none
+    //@ret: none
+    //@descrip: disables the kill button once the selected frame stopped moving
+    //NOTE: implements GoBackN.Listener
+    @Override
+    public void frameUnselected() {
+        kill.setEnabled(false);
     }
     
     //@param: none
@@ -189,85 +163,9 @@ public class WindowingSim extends Applet implements ActionListener, Runnable {
         //while current thread is the main thread (meaning animation running)
         while (curThread == mainThread) {
             //check if any frames are moving
-            if (areFramesMoving(frames)) {
-                //while any frames are moving... iterate through each Frame
-                for (int i = 0; i < totalFrames; i++) {
-                    //if Frame exists AND is moving
-                    if (frames[i] != null && frames[i].isMoving) {
-                        //if a Frame hasn't reached it destination
-                        //move Frame downwards(toward receiver)
-                        if (frames[i].vPos < (vPadding - frameHeight)) {
-                            //move Frame 5 pixels down
-                            frames[i].vPos += 5;
-                        }
-                        //Frame is moving towards the receiver(downwards)
-                        //and is within one frame height of being on top of destination
-                        else if (frames[i].needsAck) {
-                            //mark Frame as having reached its destination
-                            frames[i].reachedDest = true;
-                            //check if all preceeding frames have been received (0..i-1)
-                            //if they have, then send acknowledgement for receiving current frame
-                            if (checkRecFrames(i)) {
-                                frames[i].vPos = frameHeight + 5;
-                                frames[i].needsAck = false;
-                                eventMsg = "Frame #" + i + " has been received. Acknowledgement sent.";
-                            }
-                            //one or more previous packets are missing
-                            //current Frame will we received, but no acknowledgement will be sent
-                            else {
-                                frames[i].isMoving = false;
-                                eventMsg = "Frame #" + i + " has been received. No acknowledge sent.";
-                                //if the current Frame was selFrame; unselect it in this case
-                                //since there is no acknowledgement being sent which can be selFrame
-                                if (i == selFrame) {
-                                    selFrame = -1;
-                                    kill.setEnabled(false);
-                                }
-                            }
-                        }
-                        //Frame is not moving AND has reached the destination(sender)
-                        //if this current Frame is an acknowledgement(needsAck indicates wheather ack is needed)
-                        else if (!frames[i].needsAck) {
-                            eventMsg = "Frame #" + i + " acknowledgement has been received.";
-                            frames[i].isMoving = false;
-                            //iterate through previous packets and label their acknowledgements received
-                            for (int n = 0; n <= i; n++) {
-                                frames[n].acknowledged = true;
-                            }
-                            //if the Frame was selected upon reaching the destination, then unselect it
-                            if (i == selFrame) {
-                                selFrame = -1;
-                                kill.setEnabled(false);
-                            }
-                            //reset timeout timer when an acknowledgement is received
-                            timerThread = null;
-                            //move window base toward right
-                            if (i + winLen < totalFrames) {
-                                winBase = i + 1;
-                            }
-                            //increment nextFrame count upon received acknowledgement AND enable send button
-                            if (nextFrame < winBase + winLen) {
-                                send.setEnabled(true);
-                            }
-                            //when window base != nextFrame it means there is a succeeding
-                            //Frame in the window that was sent, but whose acknowledgement
-                            //has not yet been received. Thus, timeout timer needs to be reset
-                            //for the succeding Frame's acknowledgement to be received within that
-                            //time, else that Frame will need to be resent. Timer is reset when the
-                            //current packets acknowledgement is received, the succeeding Frame is given extra time.
-                            if (winBase != nextFrame) {
-                                eventMsg += " Timeout timer has restarted.";
-                                timerThread = new Thread(this);
-                                timerSleep = true;
-                                timerThread.start();
-                            }
-                            //No other frames are moving
-                            else {
-                                eventMsg += " Timeout timer stopped.";
-                            }
-                        }
-                    }
-                }
+            if (sim.areFramesMoving()) {
+                //while any frames are moving... move each Frame one step
+                sim.tick();
                 repaint();
                 //put animation to sleep for little bit
                 try {
@@ -294,23 +192,12 @@ public class WindowingSim extends Applet implements ActionListener, Runnable {
             }
             //flag frames in the window to be resent if their acknowledgements have not been received
             else {
-                for (int n = winBase; n < winBase + winLen; n++) {
-                    if (frames[n] != null) {
-                        if (!frames[n].acknowledged) {
-                            frames[n].isMoving = true;
-                            frames[n].needsAck = true;
-                            frames[n].vPos = frameHeight + 5;
-                        }
-                    }
-                }
+                sim.timeout();
                 timerSleep = true;
                 if (mainThread == null) {
                     mainThread = new Thread(this);
                     mainThread.start();
                 }
-                
-                eventMsg = "Frames resent due to frame exceeding timeout timer.";
-                eventMsg += " Timer has restarted.";
             }
         }
     }
@@ -332,6 +219,7 @@ public class WindowingSim extends Applet implements ActionListener, Runnable {
         int altHStart;
         int altVStart;
         Dimension d = size();
+        Frame frames[] = sim.frames;
         
         //Create the offscreen graphics context, if no good one exists.
         if ((altGraphics == null) || (d.width != altDimension.width) || (d.height != altDimension.height)) {
@@ -347,7 +235,7 @@ public class WindowingSim extends Applet implements ActionListener, Runnable {
         //drawing window
         altGraphics.setColor(Color.black);
         //handles spacing for the 'windowing' box
-        altGraphics.draw3DRect(hStart + winBase * (frameWidth + 7) - 4, vStart - 3, (winLen) * (frameWidth + 7) + 1, frameHeight + 6, true);
+        altGraphics.draw3DRect(hStart + sim.winBase * (frameWidth + 7) - 4, vStart - 3, (winLen) * (frameWidth + 7) + 1, frameHeight + 6, true);
         
         //draw recangles indicating the 'Frame-rectangles'
         for (int i = 0; i < totalFrames; i++) {
@@ -388,7 +276,7 @@ public class WindowingSim extends Applet implements ActionListener, Runnable {
                 if (frames[i].isMoving) {
                     //set color scheme for moving-selFrame Frame
                     //NOTE: This gives select-color priority over reg-color frames
-                    if (i == selFrame) {
+                    if (i == sim.selFrame) {
                         altGraphics.setColor(color_selFrame);
                     }
                     //regular Frame
@@ -422,13 +310,13 @@ public class WindowingSim extends Applet implements ActionListener, Runnable {
         //update the log history
         for (int i = eventLog.length - 2; 0 <= i; i--) {
             //if there is a NEW message then shift the log downwards
-            if (eventLog[i] != null && !eventLog[0].equals(eventMsg)) {
+            if (eventLog[i] != null && !eventLog[0].equals(sim.eventMsg)) {
                 eventLog[i + 1] = eventLog[i];
             }
         }
         //if there is no new msg this will keep inserting old msg into
         //same position; effcient to do this than to do a check for new message
-        eventLog[0] = eventMsg;
+        eventLog[0] = sim.eventMsg;
         //display all the messages in the log on each repaint()
         for (int i = 0; i < eventLog.length; i++) {
             //after each individual msg printing; print succeeding msgs with equal spacing
@@ -440,8 +328,8 @@ public class WindowingSim extends Applet implements ActionListener, Runnable {
         altGraphics.setColor(Color.black);
         altGraphics.drawString("Sliding Window Info.", hStart + (frameWidth + 7) * totalFrames + 30, vStart + frameHeight - 5);
         altGraphics.drawString("Window Size = 5", hStart + (frameWidth + 7) * totalFrames + 35, vStart + frameHeight + 15);
-        altGraphics.drawString("Base Frame = " + winBase, hStart + (frameWidth + 7) * totalFrames + 35, vStart + frameHeight + 30);
-        altGraphics.drawString("Next Frame = " + nextFrame, hStart + (frameWidth + 7) * totalFrames + 35, vStart + frameHeight + 45);
+        altGraphics.drawString("Base Frame = " + sim.winBase, hStart + (frameWidth + 7) * totalFrames + 35, vStart + frameHeight + 30);
+        altGraphics.drawString("Next Frame = " + sim.nextFrame, hStart + (frameWidth + 7) * totalFrames + 35, vStart + frameHeight + 45);
         altGraphics.drawString("Timeout = " + timeOutSec + " secs", hStart + (frameWidth + 7) * totalFrames + 35, vStart + frameHeight + 60);
         //draws a box around the 'Window base' and 'next seq' text
         altGraphics.setColor(Color.black);
@@ -485,6 +373,7 @@ public class WindowingSim extends Applet implements ActionListener, Runnable {
     @Override
     public boolean mouseDown(Event e, int x, int y) {
         int i, xPos, yPos;
+        Frame frames[] = sim.frames;
         i = (x - hStart) / (frameWidth + 7);
         if (frames[i] != null) {
             xPos = hStart + (frameWidth + 7) * i;
@@ -494,9 +383,7 @@ public class WindowingSim extends Applet implements ActionListener, Runnable {
                 if ((frames[i].needsAck && y >= vStart + yPos &&
                         y <= vStart + yPos + frameHeight) || ((!frames[i].needsAck) &&
                         y >= vStart + vPadding - yPos && y <= vStart + vPadding - yPos + frameHeight)) {
-                    eventMsg = "Frame #" + i + " has been selected.";
-                    frames[i].isSelected = true;
-                    selFrame = i;
+                    sim.selectFrame(i);
                     kill.setEnabled(true);
                 }
             }
@@ -511,27 +398,11 @@ public class WindowingSim extends Applet implements ActionListener, Runnable {
     public void actionPerformed(ActionEvent e) {
         String actCmd = e.getActionCommand();
         //if send button is pressed AND next frame is within the window
-        if ("sendF".equals(actCmd) && nextFrame < winBase + winLen) {
-            //label the Frame as 'moving' and change its position down by 5 pixels
-            frames[nextFrame] = new Frame(true, frameHeight + 5);
-            //generate sring indicating the action performed
-            eventMsg = "Frame #" + nextFrame + " has been sent.";
-            //start timeout timer for that Frame if it's the first Frame in
-            //the window being sent
-            if (winBase == nextFrame) {
-                eventMsg += " Timer set for Frame #" + winBase + ".";
-                if (timerThread == null) {
-                    timerThread = new Thread(this);
-                }
-                timerSleep = true;
-                timerThread.start();
-            }
+        if ("sendF".equals(actCmd) && sim.sendFrame()) {
             //update the animation
             repaint();
-            //update next sequence to be sent
-            nextFrame++;
             //if all packets in the window have been sent, then disable send button
-            if (nextFrame == winBase + winLen) {
+            if (sim.isWindowFull()) {
                 send.setEnabled(false);
             }
             //run main thread
@@ -552,24 +423,24 @@ public class WindowingSim extends Applet implements ActionListener, Runnable {
             send.setEnabled(false);
             kill.setEnabled(false);
             
-            eventMsg = "Simulation has been paused.";
+            sim.eventMsg = "Simulation has been paused.";
             //only insert timer warning when there are moving frames(i.e. nextFrame != winBase)
-            if (nextFrame != winBase) {
-                eventMsg += " Timeout timer has been paused.";
+            if (sim.nextFrame != sim.winBase) {
+                sim.eventMsg += " Timeout timer has been paused.";
             }
             //update the animation
             repaint();
         }
         //pause/resume button is pressed
         else if ("resumeSim".equals(actCmd)) {
-            eventMsg = "Simulation has been resumed.";
+            sim.eventMsg = "Simulation has been resumed.";
             //update the pause/resume button text
             pause.setLabel("Pause Sim");
             pause.setActionCommand("pauseSim");
             //only insert timer warning when there are moving frames
             if (timerFlag) {
-                if (nextFrame != winBase) {
-                    eventMsg += " Timeout timer has resumed running.";
+                if (sim.nextFrame != sim.winBase) {
+                    sim.eventMsg += " Timeout timer has resumed running.";
                 }
                 timerThread = new Thread(this);
                 timerSleep = true;
@@ -577,11 +448,11 @@ public class WindowingSim extends Applet implements ActionListener, Runnable {
             }
             //enable all disabled buttons
             //only enable send on resume when window not full
-            if (nextFrame != winBase + winLen) {
+            if (sim.nextFrame != sim.winBase + winLen) {
                 send.setEnabled(true);
             }
             //only enable kill if frame is selected
-            if (selFrame != -1) {
+            if (sim.selFrame != -1) {
                 kill.setEnabled(true);
             }
             //update animation
@@ -591,33 +462,15 @@ public class WindowingSim extends Applet implements ActionListener, Runnable {
         }
         //kill button was pressed
         else if ("killFrame".equals(actCmd)) {
-            //check if the selFrame Frame needed acknowledgement
-            if (frames[selFrame].needsAck) {
-                eventMsg = "Frame #" + selFrame + " has been destroyed.";
-                eventMsg += " Timeout timer still running for Frame #" + selFrame + ".";
-            }
-            //if no acknowledgement was needed then its a acknowledgement Frame
-            else {
-                eventMsg = "Acknowledgement of Frame #" + selFrame + " has been destroyed.";
-                eventMsg += "Timeout timer still running for Frame " + selFrame + ".";
-            }
-            //mark the destroyed Frame as immobile
-            frames[selFrame].isMoving = false;
+            //mark the selected Frame as destroyed
+            sim.killFrame();
             kill.setEnabled(false);
-            selFrame = -1;
             repaint();
         }
         //reset button was pressed
         else if ("reset".equals(actCmd)) {
-            //empty frames array
-            for (int i = 0; i < totalFrames; i++) {
-                if (frames[i] != null) {
-                    frames[i] = null;
-                }
-            }
-            winBase = 0;
-            nextFrame = 0;
-            selFrame = -1;
+            //empty frames array and move the window back to the start
+            sim.reset();
             frameRate = 5;
             timerFlag = false;
             timerSleep = false;
@@ -629,7 +482,7 @@ public class WindowingSim extends Applet implements ActionListener, Runnable {
             pause.setLabel("Pause Sim");
             pause.setActionCommand("pauseSim");
             
-            eventMsg = "Simulation has been restarted.";
+            sim.eventMsg = "Simulation has been restarted.";
             repaint();
         }
     }